@@ -0,0 +1,110 @@
+package petri.app;
+
+import petri.core.CompiledNet;
+import petri.core.EnablementEvaluator;
+import petri.core.Marking;
+import petri.core.PetriNet;
+
+import java.util.Random;
+
+/**
+ * Micro-benchmark de habilitación por tokens: CompiledNet.isEnabledByTokens transición por
+ * transición contra la máscara en bloque de EnablementEvaluator (escalar o vectorial, según
+ * se corra con --add-modules jdk.incubator.vector).
+ *
+ * Sirve para calibrar las estimaciones de costo (EnablementEvaluator.cost y el costo por
+ * transición de NetState.prefersBulk). No es JMH: da órdenes de magnitud.
+ *
+ * Uso: java [--add-modules jdk.incubator.vector] -cp target/classes petri.app.EnablementBench
+ */
+public class EnablementBench {
+
+    private static final int MARKINGS = 1024; // marcados distintos para no medir siempre la misma rama
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        System.out.printf("%-14s %8s %12s %12s %14s%n", "red", "|T|", "kernel(ns)", "bulk(ns)", "kernel 5 (ns)");
+        // "kernel": CompiledNet sobre todas las transiciones; "kernel 5": solo 5 (caso Monitor)
+
+        PetriNet tp = Tp2025Net.build(new long[Tp2025Net.TRANSITIONS]);
+        run("Tp2025Net", tp, new Random(1));
+
+        for (int n : new int[]{32, 64, 128, 256, 1024}) {
+            run("rala-" + n, randomNet(n, 3, new Random(n)), new Random(n + 1));
+        }
+        for (int n : new int[]{32, 64, 128, 256}) {
+            run("densa-" + n, randomNet(n, n / 4, new Random(n)), new Random(n + 1));
+        }
+    }
+
+    private static void run(String name, PetriNet net, Random rnd) {
+        CompiledNet kernel = CompiledNet.compile(net);
+        EnablementEvaluator evaluator = EnablementEvaluator.forNet(net);
+
+        Marking[] ms = new Marking[MARKINGS];
+        for (int i = 0; i < MARKINGS; i++) {
+            int[] tokens = new int[net.places()];
+            for (int p = 0; p < tokens.length; p++) tokens[p] = rnd.nextInt(4);
+            ms[i] = new Marking(tokens);
+        }
+
+        // 5 transiciones fijas: lo que mira el Monitor con un hilo esperando por worker
+        int[] waiting = new int[5];
+        for (int i = 0; i < waiting.length; i++) waiting[i] = rnd.nextInt(net.transitions());
+
+        long[] mask = new long[EnablementEvaluator.words(net.transitions())];
+        int iters = Math.max(20_000, 20_000_000 / net.transitions());
+
+        double kernelNs = 0, bulkNs = 0, waitingNs = 0;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < iters; i++) {
+                Marking m = ms[i & (MARKINGS - 1)];
+                for (int t = 0; t < net.transitions(); t++) {
+                    if (kernel.isEnabledByTokens(m, t)) sink++;
+                }
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < iters; i++) {
+                evaluator.enabledMask(ms[i & (MARKINGS - 1)], mask);
+                sink += mask[0];
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < iters; i++) {
+                Marking m = ms[i & (MARKINGS - 1)];
+                for (int t : waiting) {
+                    if (kernel.isEnabledByTokens(m, t)) sink++;
+                }
+            }
+            long t3 = System.nanoTime();
+
+            // la primera ronda es calentamiento del JIT
+            if (round > 0) {
+                kernelNs += (double) (t1 - t0) / iters;
+                bulkNs += (double) (t2 - t1) / iters;
+                waitingNs += (double) (t3 - t2) / iters;
+            }
+        }
+        int n = ROUNDS - 1;
+        System.out.printf("%-14s %8d %12.1f %12.1f %14.1f   (%s cost=%d, sink=%d)%n", name, net.transitions(),
+                kernelNs / n, bulkNs / n, waitingNs / n, evaluator.getClass().getSimpleName(), evaluator.cost(), sink & 1);
+    }
+
+    /**
+     * Red sintética |P| = |T| = n: cada transición consume 1-3 tokens de 1 a maxArcs plazas
+     * al azar y produce en otras tantas. Con maxArcs chico es rala; con n / 4, densa.
+     */
+    private static PetriNet randomNet(int n, int maxArcs, Random rnd) {
+        int[][] pre = new int[n][n];
+        int[][] post = new int[n][n];
+        for (int t = 0; t < n; t++) {
+            int arcs = 1 + rnd.nextInt(maxArcs);
+            for (int a = 0; a < arcs; a++) {
+                pre[rnd.nextInt(n)][t] = 1 + rnd.nextInt(3);
+                post[rnd.nextInt(n)][t] = 1;
+            }
+        }
+        return new PetriNet(pre, post, new long[n]);
+    }
+}
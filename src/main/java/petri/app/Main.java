@@ -1,5 +1,6 @@
 package petri.app;
 
+import petri.core.CompiledNet;
 import petri.core.Marking;
 import petri.core.PetriNet;
 import petri.monitor.Monitor;
@@ -24,7 +25,7 @@ public class Main {
         // ===== 3) Construir red + estado =====
         PetriNet net = Tp2025Net.build(delays);
         Marking initial = Tp2025Net.initialMarking();
-        NetState state = new NetState(net, initial);
+        NetState state = new NetState(net, CompiledNet.compile(net), initial); // disparo con tablas precalculadas
 
         // ===== 4) Monitor + política =====
         Policy policy = new RandomPolicy(); // luego metemos PriorityPolicy
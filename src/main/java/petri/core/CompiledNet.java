@@ -0,0 +1,107 @@
+package petri.core;
+
+/**
+ * Versión "compilada" de una PetriNet: como la estructura no cambia después de construirla,
+ * se precalcula para cada transición la lista de arcos que realmente importan.
+ * - entradas: plazas con pre[p][t] > 0 y su peso
+ * - cambios:  plazas con post[p][t] - pre[p][t] != 0 y ese delta
+ *
+ * Así isEnabledByTokens y fire recorren solo unos pocos índices (los de Tt)
+ * en vez de toda la columna de las matrices |P| x |T|.
+ *
+ * Nota: igual que PetriNet, NO maneja concurrencia ni tiempo.
+ */
+public final class CompiledNet implements FiringKernel {
+
+    // inPlaces[t][k] = k-ésima plaza de entrada de Tt; inWeights[t][k] = tokens que consume de ella
+    private final int[][] inPlaces;
+    private final int[][] inWeights;
+
+    // deltaPlaces[t][k] = k-ésima plaza cuyo marcado cambia al disparar Tt; deltas[t][k] = post - pre
+    private final int[][] deltaPlaces;
+    private final int[][] deltas;
+
+    private CompiledNet(int[][] inPlaces, int[][] inWeights, int[][] deltaPlaces, int[][] deltas) {
+        this.inPlaces = inPlaces;
+        this.inWeights = inWeights;
+        this.deltaPlaces = deltaPlaces;
+        this.deltas = deltas;
+    }
+
+    /**
+     * Recorre las matrices una sola vez y arma las tablas por transición.
+     */
+    public static CompiledNet compile(PetriNet net) {
+        int places = net.places();
+        int transitions = net.transitions();
+
+        int[][] inPlaces = new int[transitions][];
+        int[][] inWeights = new int[transitions][];
+        int[][] deltaPlaces = new int[transitions][];
+        int[][] deltas = new int[transitions][];
+
+        for (int t = 0; t < transitions; t++) {
+            // primera pasada: contar arcos para dimensionar exacto
+            int nIn = 0, nDelta = 0;
+            for (int p = 0; p < places; p++) {
+                if (net.pre(p, t) > 0) nIn++;
+                if (net.post(p, t) != net.pre(p, t)) nDelta++;
+            }
+
+            inPlaces[t] = new int[nIn];
+            inWeights[t] = new int[nIn];
+            deltaPlaces[t] = new int[nDelta];
+            deltas[t] = new int[nDelta];
+
+            // segunda pasada: llenar
+            int i = 0, d = 0;
+            for (int p = 0; p < places; p++) {
+                int pre = net.pre(p, t);
+                int post = net.post(p, t);
+                if (pre > 0) {
+                    inPlaces[t][i] = p;
+                    inWeights[t][i] = pre;
+                    i++;
+                }
+                if (post != pre) {
+                    deltaPlaces[t][d] = p;
+                    deltas[t][d] = post - pre;
+                    d++;
+                }
+            }
+        }
+        return new CompiledNet(inPlaces, inWeights, deltaPlaces, deltas);
+    }
+
+    @Override
+    public boolean isEnabledByTokens(Marking m, int t) {
+        int[] ps = inPlaces[t];
+        int[] ws = inWeights[t];
+        for (int k = 0; k < ps.length; k++) {
+            if (m.get(ps[k]) < ws[k]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Marking fire(Marking m, int t) {
+        // Seguridad: mismo contrato que PetriNet.fire
+        if (!isEnabledByTokens(m, t)) {
+            throw new IllegalStateException("T" + t + " no está habilitada por tokens");
+        }
+
+        int[] next = m.snapshot();
+        int[] ps = deltaPlaces[t];
+        int[] ds = deltas[t];
+        for (int k = 0; k < ps.length; k++) {
+            int p = ps[k];
+            next[p] += ds[k];
+            // no debería pasar si estaba habilitada, pero mantenemos el chequeo de PetriNet
+            if (next[p] < 0) {
+                throw new IllegalStateException("Token negativo en P" + p + " luego de disparar T" + t);
+            }
+        }
+        // next es una copia propia: evitamos la segunda copia defensiva
+        return Marking.wrap(next);
+    }
+}
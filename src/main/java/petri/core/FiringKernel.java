@@ -0,0 +1,14 @@
+package petri.core;
+
+/**
+ * Lógica de disparo por tokens de una red (sin tiempo ni concurrencia).
+ * La implementan PetriNet (interpreta las matrices) y CompiledNet (tablas precalculadas).
+ */
+public interface FiringKernel {
+
+    /** true si en cada plaza de entrada de Tt hay tokens suficientes. */
+    boolean isEnabledByTokens(Marking m, int t);
+
+    /** Calcula M' = M - pre[:,t] + post[:,t] sin mutar m. */
+    Marking fire(Marking m, int t);
+}
@@ -21,6 +21,23 @@ public class Marking {
         this.tokens = Arrays.copyOf(tokens, tokens.length);
     }
 
+    /**
+     * Constructor interno: toma el arreglo SIN copiarlo (solo se llega desde wrap).
+     * El parámetro noCopy no se usa: existe solo para que la firma sea distinta
+     * de la del constructor público, que sí hace copia defensiva.
+     */
+    private Marking(int[] tokens, Void noCopy) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Envuelve un arreglo recién calculado sin copia defensiva.
+     * Solo para uso dentro de petri.core, cuando nadie más tiene referencia al arreglo.
+     */
+    static Marking wrap(int[] tokens) {
+        return new Marking(tokens, null);
+    }
+
     /**
      * Devuelve la cantidad de plazas (tamaño del marcado).
      */
@@ -44,6 +61,13 @@ public class Marking {
         return Arrays.copyOf(tokens, tokens.length);
     }
 
+    /**
+     * Copia los tokens al comienzo de dst (dst puede ser más largo, p.ej. con padding).
+     */
+    void copyTo(int[] dst) {
+        System.arraycopy(tokens, 0, dst, 0, tokens.length);
+    }
+
     /**
      * Representación textual del marcado (útil para logs/debug).
      */
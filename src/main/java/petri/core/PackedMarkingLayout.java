@@ -0,0 +1,198 @@
+package petri.core;
+
+import java.util.Arrays;
+
+/**
+ * Codificación compacta de un marcado en pocos long, a partir de las cotas de PlaceBounds.
+ *
+ * Cada plaza ocupa un campo de bitsFor(p) bits más 1 bit de guarda (siempre 0 en un
+ * marcado guardado). Los campos no cruzan el límite de un long.
+ *
+ * Con la guarda se chequea y se dispara palabra por palabra, sin desempaquetar:
+ * - habilitada: ((w | GUARDAS) - PRE) & GUARDAS == GUARDAS
+ *   (si algún campo tiene menos tokens que pre, pide prestado y apaga su guarda)
+ * - disparo:    w - PRE + POST
+ *   (las cotas garantizan que ningún campo baja de 0 ni pasa su máximo)
+ *
+ * Nota: igual que PetriNet, NO maneja concurrencia ni tiempo.
+ */
+public final class PackedMarkingLayout {
+
+    private final int places;
+    private final int words;
+
+    // ubicación de cada plaza: palabra, desplazamiento y bits de valor (sin la guarda)
+    private final int[] wordOf;
+    private final int[] shift;
+    private final int[] width;
+
+    // bound[p] = cota de Pp según PlaceBounds (pack rechaza valores mayores)
+    private final int[] bound;
+
+    // cotas e invariantes de origen: pack rechaza marcados que no respetan los P-invariantes
+    private final PlaceBounds bounds;
+
+    // guards[i] = bits de guarda de la palabra i
+    private final long[] guards;
+
+    // preWords[t][i] / postWords[t][i] = pesos de Tt ya ubicados en la palabra i
+    private final long[][] preWords;
+    private final long[][] postWords;
+
+    // dead[t] = Tt no puede dispararse nunca (un peso no entra en el campo de su plaza)
+    private final boolean[] dead;
+
+    private PackedMarkingLayout(int places, int words, int[] wordOf, int[] shift, int[] width, int[] bound,
+                                PlaceBounds bounds, long[] guards, long[][] preWords, long[][] postWords, boolean[] dead) {
+        this.places = places;
+        this.words = words;
+        this.wordOf = wordOf;
+        this.shift = shift;
+        this.width = width;
+        this.bound = bound;
+        this.bounds = bounds;
+        this.guards = guards;
+        this.preWords = preWords;
+        this.postWords = postWords;
+        this.dead = dead;
+    }
+
+    /**
+     * Arma el layout para la red. Todas las plazas tienen que estar acotadas.
+     */
+    public static PackedMarkingLayout of(PetriNet net, PlaceBounds bounds) {
+        int places = net.places();
+        int transitions = net.transitions();
+        if (bounds.places() != places) {
+            throw new IllegalArgumentException("Las cotas tienen " + bounds.places() + " plazas, se esperaban " + places);
+        }
+        if (!bounds.isBounded()) {
+            throw new IllegalArgumentException("No se puede empaquetar: hay plazas no acotadas " + bounds);
+        }
+
+        int[] wordOf = new int[places];
+        int[] shift = new int[places];
+        int[] width = new int[places];
+        int[] bound = new int[places];
+
+        // asignación secuencial de campos; si no entra en la palabra actual, pasa a la siguiente
+        int word = 0, bit = 0;
+        for (int p = 0; p < places; p++) {
+            int w = bounds.bitsFor(p);
+            if (bit + w + 1 > Long.SIZE) {
+                word++;
+                bit = 0;
+            }
+            wordOf[p] = word;
+            shift[p] = bit;
+            width[p] = w;
+            bound[p] = bounds.bound(p);
+            bit += w + 1;
+        }
+        int words = word + 1;
+
+        long[] guards = new long[words];
+        for (int p = 0; p < places; p++) {
+            guards[wordOf[p]] |= 1L << (shift[p] + width[p]);
+        }
+
+        long[][] preWords = new long[transitions][words];
+        long[][] postWords = new long[transitions][words];
+        boolean[] dead = new boolean[transitions];
+        for (int t = 0; t < transitions; t++) {
+            for (int p = 0; p < places; p++) {
+                int pre = net.pre(p, t);
+                int post = net.post(p, t);
+                // un peso mayor que la cota nunca se puede cumplir (pre) o violaría la cota (post)
+                if (pre > bounds.bound(p) || post > bounds.bound(p)) {
+                    dead[t] = true;
+                    continue;
+                }
+                preWords[t][wordOf[p]] += (long) pre << shift[p];
+                postWords[t][wordOf[p]] += (long) post << shift[p];
+            }
+        }
+        return new PackedMarkingLayout(places, words, wordOf, shift, width, bound, bounds, guards, preWords, postWords, dead);
+    }
+
+    /** Cantidad de long por marcado. */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Empaqueta un marcado. Falla si algún valor supera su cota o si no respeta los
+     * P-invariantes usados para las cotas. Con eso, disparar desde un marcado empaquetado
+     * nunca puede pasarse de las cotas (cada disparo conserva los invariantes).
+     */
+    public long[] pack(Marking m) {
+        if (m.size() != places) {
+            throw new IllegalArgumentException("El marcado tiene " + m.size() + " plazas, se esperaban " + places);
+        }
+        long[] w = new long[words];
+        for (int p = 0; p < places; p++) {
+            int v = m.get(p);
+            if (v < 0 || v > bound[p]) {
+                throw new IllegalArgumentException("P" + p + " tiene " + v + " tokens, fuera de su cota " + bound[p]);
+            }
+            w[wordOf[p]] |= (long) v << shift[p];
+        }
+        if (!bounds.satisfiesInvariants(m)) {
+            throw new IllegalArgumentException("El marcado " + m + " no respeta los P-invariantes de las cotas");
+        }
+        return w;
+    }
+
+    public Marking unpack(long[] w) {
+        int[] tokens = new int[places];
+        for (int p = 0; p < places; p++) tokens[p] = get(w, p);
+        return Marking.wrap(tokens);
+    }
+
+    /** Tokens de Pp leídos directo del campo. */
+    public int get(long[] w, int p) {
+        return (int) ((w[wordOf[p]] >>> shift[p]) & ((1L << width[p]) - 1));
+    }
+
+    public boolean isEnabledByTokens(long[] w, int t) {
+        if (dead[t]) return false;
+        long[] pre = preWords[t];
+        for (int i = 0; i < words; i++) {
+            if ((((w[i] | guards[i]) - pre[i]) & guards[i]) != guards[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Disparo sobre el arreglo empaquetado, sin copiar (para exploraciones que reusan buffers).
+     *
+     * Si w salió de pack, los invariantes garantizan que ningún campo se pasa de su cota.
+     * Igual se verifica que nada desborde hacia una guarda (p.ej. un long[] armado a mano):
+     * en ese caso se lanza excepción y w queda sin tocar, como el chequeo de token negativo
+     * de PetriNet.fire. Un valor mayor a la cota que todavía entra en el campo NO se detecta.
+     */
+    public void fireInPlace(long[] w, int t) {
+        if (!isEnabledByTokens(w, t)) {
+            throw new IllegalStateException("T" + t + " no está habilitada por tokens");
+        }
+        long[] pre = preWords[t];
+        long[] post = postWords[t];
+
+        // primero verificamos todas las palabras, recién después escribimos
+        for (int i = 0; i < words; i++) {
+            if (((w[i] - pre[i] + post[i]) & guards[i]) != 0) {
+                throw new IllegalStateException("Desborde de cota en la palabra " + i + " luego de disparar T" + t);
+            }
+        }
+        for (int i = 0; i < words; i++) {
+            w[i] = w[i] - pre[i] + post[i];
+        }
+    }
+
+    /** Igual que fireInPlace pero devuelve un arreglo nuevo. */
+    public long[] fire(long[] w, int t) {
+        long[] next = Arrays.copyOf(w, w.length);
+        fireInPlace(next, t);
+        return next;
+    }
+}
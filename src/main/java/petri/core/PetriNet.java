@@ -8,8 +8,9 @@ import java.util.Arrays;
  * - delayMs: semántica temporal (la usa el monitor, no esta clase)
  *
  * Nota: esta clase NO maneja concurrencia; solo define la lógica/ecuación de estado.
+ * Interpreta las matrices en cada llamada; para la versión precalculada ver CompiledNet.
  */
-public class PetriNet {
+public class PetriNet implements FiringKernel {
     private final int places;       // cantidad de plazas |P|
     private final int transitions;  // cantidad de transiciones |T|
 
@@ -54,10 +55,19 @@ public class PetriNet {
         return delayMs[t]; // delay configurado para Tt
     }
 
+    public int pre(int p, int t) {
+        return pre[p][t]; // peso del arco Pp -> Tt
+    }
+
+    public int post(int p, int t) {
+        return post[p][t]; // peso del arco Tt -> Pp
+    }
+
     /**
      * Chequeo SOLO por tokens (no incluye tiempo).
      * Una transición está habilitada si en cada plaza hay tokens suficientes para consumir pre[p][t].
      */
+    @Override
     public boolean isEnabledByTokens(Marking m, int t) {
         for (int p = 0; p < places; p++) {
             // si a la plaza p le faltan tokens para cubrir lo que consume Tt, no está habilitada
@@ -70,6 +80,7 @@ public class PetriNet {
      * Disparo "puro": calcula el siguiente marcado aplicando: * M' = M - pre[:,t] + post[:,t]
      * Ojo: esto no sincroniza ni duerme por tiempo; eso lo hace el monitor.
      */
+    @Override
     public Marking fire(Marking m, int t) {
         // Seguridad: no disparamos si estructuralmente no corresponde
         if (!isEnabledByTokens(m, t)) {
@@ -0,0 +1,220 @@
+package petri.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Análisis estructural de cotas por plaza usando P-invariantes.
+ *
+ * Un P-invariante es un vector y >= 0 con y^T * C = 0 (C = post - pre), o sea
+ * y·M es constante para todo marcado alcanzable. Entonces, si y[p] > 0:
+ *     M(p) <= (y·M0) / y[p]
+ * La cota de p es el mínimo de eso sobre los invariantes que la cubren.
+ * Si ninguno la cubre, no se puede acotar por este método (UNBOUNDED).
+ *
+ * Los invariantes se calculan con el algoritmo de Farkas (eliminación columna por columna).
+ */
+public final class PlaceBounds {
+
+    public static final int UNBOUNDED = -1;
+
+    private final int[] bound;              // bound[p] = cota de Pp o UNBOUNDED
+    private final List<int[]> invariants;   // P-invariantes semipositivos encontrados
+    private final long[] totals;            // totals[i] = y_i·M0 (constante en todo marcado alcanzable)
+
+    private PlaceBounds(int[] bound, List<int[]> invariants, long[] totals) {
+        this.bound = bound;
+        this.invariants = invariants;
+        this.totals = totals;
+    }
+
+    /**
+     * Calcula las cotas de cada plaza para la red partiendo del marcado inicial.
+     * Lanza ArithmeticException si los coeficientes de Farkas desbordan long.
+     */
+    public static PlaceBounds compute(PetriNet net, Marking initial) {
+        if (initial.size() != net.places()) {
+            throw new IllegalArgumentException("El marcado tiene " + initial.size() + " plazas, se esperaban " + net.places());
+        }
+        List<int[]> invs = pInvariants(net);
+
+        int[] bound = new int[net.places()];
+        Arrays.fill(bound, UNBOUNDED);
+
+        long[] totals = new long[invs.size()];
+        for (int i = 0; i < invs.size(); i++) {
+            int[] y = invs.get(i);
+            long total = weightedSum(y, initial);
+            totals[i] = total;
+
+            for (int p = 0; p < y.length; p++) {
+                if (y[p] == 0) continue;
+                long b = total / y[p];
+                if (b > Integer.MAX_VALUE) continue;
+                if (bound[p] == UNBOUNDED || b < bound[p]) bound[p] = (int) b;
+            }
+        }
+        return new PlaceBounds(bound, invs, totals);
+    }
+
+    public int places() {
+        return bound.length;
+    }
+
+    /** Cota de tokens de Pp, o UNBOUNDED si ningún invariante la cubre. */
+    public int bound(int p) {
+        return bound[p];
+    }
+
+    /** true si todas las plazas quedaron cubiertas por algún invariante. */
+    public boolean isBounded() {
+        for (int b : bound) {
+            if (b == UNBOUNDED) return false;
+        }
+        return true;
+    }
+
+    /** Bits necesarios para representar 0..bound(p) (0 si la plaza siempre está vacía). */
+    public int bitsFor(int p) {
+        if (bound[p] == UNBOUNDED) {
+            throw new IllegalStateException("P" + p + " no está acotada por P-invariantes");
+        }
+        return 32 - Integer.numberOfLeadingZeros(bound[p]);
+    }
+
+    /** Copia de los P-invariantes usados (uno por fila, indexado por plaza). */
+    public List<int[]> invariants() {
+        List<int[]> copy = new ArrayList<>(invariants.size());
+        for (int[] y : invariants) copy.add(y.clone());
+        return copy;
+    }
+
+    /**
+     * true si m respeta todos los P-invariantes (y·m == y·M0). Un marcado alcanzable
+     * siempre los respeta; uno que no, no sale de M0 disparando.
+     */
+    public boolean satisfiesInvariants(Marking m) {
+        for (int i = 0; i < totals.length; i++) {
+            if (weightedSum(invariants.get(i), m) != totals[i]) return false;
+        }
+        return true;
+    }
+
+    // y·m (exact: en long para no desbordar con pesos grandes)
+    private static long weightedSum(int[] y, Marking m) {
+        long total = 0;
+        for (int p = 0; p < y.length; p++) total = Math.addExact(total, (long) y[p] * m.get(p));
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(bound);
+    }
+
+    /**
+     * Algoritmo de Farkas: arranca con [C | I] (una fila por plaza) y, para cada transición,
+     * combina filas con signo opuesto en esa columna hasta anularla. Al final la parte
+     * derecha de cada fila es un P-invariante semipositivo.
+     */
+    private static List<int[]> pInvariants(PetriNet net) {
+        int places = net.places();
+        int transitions = net.transitions();
+
+        // fila = [C(p, 0..T-1) | e_p]
+        List<long[]> rows = new ArrayList<>();
+        for (int p = 0; p < places; p++) {
+            long[] r = new long[transitions + places];
+            for (int t = 0; t < transitions; t++) r[t] = net.post(p, t) - net.pre(p, t);
+            r[transitions + p] = 1;
+            rows.add(r);
+        }
+
+        for (int t = 0; t < transitions; t++) {
+            List<long[]> next = new ArrayList<>();
+            List<long[]> pos = new ArrayList<>();
+            List<long[]> neg = new ArrayList<>();
+            for (long[] r : rows) {
+                if (r[t] == 0) next.add(r);
+                else if (r[t] > 0) pos.add(r);
+                else neg.add(r);
+            }
+            for (long[] a : pos) {
+                for (long[] b : neg) {
+                    // a*|b[t]| + b*a[t] anula la columna t
+                    // (exact: si desborda long preferimos fallar antes que devolver cotas falsas)
+                    long ka = -b[t], kb = a[t];
+                    long[] c = new long[a.length];
+                    for (int i = 0; i < c.length; i++) {
+                        c[i] = Math.addExact(Math.multiplyExact(a[i], ka), Math.multiplyExact(b[i], kb));
+                    }
+                    next.add(normalize(c));
+                }
+            }
+            rows = minimalSupport(next, transitions);
+        }
+
+        List<int[]> result = new ArrayList<>(rows.size());
+        for (long[] r : rows) {
+            int[] y = new int[places];
+            for (int p = 0; p < places; p++) y[p] = Math.toIntExact(r[transitions + p]);
+            result.add(y);
+        }
+        return result;
+    }
+
+    // divide por el mcd para que los coeficientes no crezcan sin control
+    private static long[] normalize(long[] r) {
+        long g = 0;
+        for (long v : r) g = gcd(g, Math.abs(v));
+        if (g > 1) {
+            for (int i = 0; i < r.length; i++) r[i] /= g;
+        }
+        return r;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long tmp = a % b;
+            a = b;
+            b = tmp;
+        }
+        return a;
+    }
+
+    /**
+     * Saca duplicados y filas cuyo soporte (parte de identidad) contiene al de otra:
+     * esas no aportan invariantes nuevos y hacen crecer la matriz exponencialmente.
+     */
+    private static List<long[]> minimalSupport(List<long[]> rows, int offset) {
+        List<long[]> unique = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        for (long[] r : rows) {
+            if (seen.add(Arrays.toString(r))) unique.add(r);
+        }
+
+        List<long[]> kept = new ArrayList<>();
+        for (int i = 0; i < unique.size(); i++) {
+            boolean dominated = false;
+            for (int j = 0; j < unique.size() && !dominated; j++) {
+                if (i != j && strictSubsetSupport(unique.get(j), unique.get(i), offset)) dominated = true;
+            }
+            if (!dominated) kept.add(unique.get(i));
+        }
+        return kept;
+    }
+
+    // soporte(a) ⊊ soporte(b), mirando solo la parte de identidad
+    private static boolean strictSubsetSupport(long[] a, long[] b, int offset) {
+        boolean strict = false;
+        for (int i = offset; i < a.length; i++) {
+            boolean inA = a[i] != 0, inB = b[i] != 0;
+            if (inA && !inB) return false;
+            if (inB && !inA) strict = true;
+        }
+        return strict;
+    }
+}
@@ -0,0 +1,103 @@
+package petri.core;
+
+import java.util.Arrays;
+
+/**
+ * Evaluador escalar (fallback sin Vector API), en paralelo sobre las transiciones con bitsets.
+ *
+ * Para cada palabra w de 64 transiciones y cada plaza p con arcos hacia esa palabra se
+ * precalcula, para cada valor de tokens v < maxPre, disabledBy(w, p, v) = transiciones de w
+ * con pre[p][t] > v. El cálculo queda:
+ *     mask[w] = todas; para cada p de w con M(p) < maxPre: mask[w] &= ~disabledBy(w, p, M(p))
+ * o sea una operación por cada par (plaza, palabra) que tiene arcos, sin mirar cada Tt.
+ */
+final class ScalarEnablementEvaluator implements EnablementEvaluator {
+
+    private final int transitions;
+    private final int words;
+
+    // entradas de la palabra w: entryStart[w] .. entryStart[w + 1] - 1
+    private final int[] entryStart;
+    private final int[] entryPlace;  // plaza de la entrada
+    private final int[] entryMaxPre; // mayor peso de la plaza hacia las transiciones de la palabra
+    private final int[] entryOffset; // comienzo de sus máscaras en disabledBy (una por valor v)
+
+    private final long[] disabledBy;
+
+    // todas las transiciones reales en 1 (la última palabra puede estar incompleta)
+    private final long[] all;
+
+    ScalarEnablementEvaluator(PetriNet net) {
+        this.transitions = net.transitions();
+        this.words = EnablementEvaluator.words(transitions);
+
+        int[] places = EnablementEvaluator.inputPlaces(net);
+        int[] start = new int[words + 1];
+        int[] place = new int[places.length * words];
+        int[] max = new int[places.length * words];
+        int[] offset = new int[places.length * words];
+
+        // primera pasada: qué (palabra, plaza) tienen arcos y cuántas máscaras necesitan
+        int e = 0, size = 0;
+        for (int w = 0; w < words; w++) {
+            start[w] = e;
+            for (int p : places) {
+                int m = 0;
+                for (int t = w << 6; t < Math.min(transitions, (w + 1) << 6); t++) {
+                    m = Math.max(m, net.pre(p, t));
+                }
+                if (m == 0) continue;
+                place[e] = p;
+                max[e] = m;
+                offset[e] = size;
+                size += m;
+                e++;
+            }
+        }
+        start[words] = e;
+
+        // segunda pasada: las máscaras
+        long[] disabled = new long[size];
+        for (int w = 0; w < words; w++) {
+            for (int k = start[w]; k < start[w + 1]; k++) {
+                for (int v = 0; v < max[k]; v++) {
+                    for (int t = w << 6; t < Math.min(transitions, (w + 1) << 6); t++) {
+                        if (net.pre(place[k], t) > v) disabled[offset[k] + v] |= 1L << t;
+                    }
+                }
+            }
+        }
+
+        this.entryStart = start;
+        this.entryPlace = Arrays.copyOf(place, e);
+        this.entryMaxPre = Arrays.copyOf(max, e);
+        this.entryOffset = Arrays.copyOf(offset, e);
+        this.disabledBy = disabled;
+
+        this.all = new long[words];
+        for (int t = 0; t < transitions; t++) all[t >>> 6] |= 1L << t;
+    }
+
+    @Override
+    public void enabledMask(Marking m, long[] mask) {
+        for (int w = 0; w < words; w++) {
+            long acc = all[w];
+            for (int k = entryStart[w]; k < entryStart[w + 1]; k++) {
+                int tokens = m.get(entryPlace[k]);
+                if (tokens < entryMaxPre[k]) acc &= ~disabledBy[entryOffset[k] + tokens];
+            }
+            mask[w] = acc;
+        }
+    }
+
+    @Override
+    public int transitions() {
+        return transitions;
+    }
+
+    @Override
+    public int cost() {
+        // ~4 por par (plaza, palabra): lectura del marcado + máscara indirecta
+        return 4 * entryPlace.length + 2 * words;
+    }
+}
@@ -0,0 +1,103 @@
+package petri.core;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Evaluador con la Vector API (SIMD), en paralelo sobre las transiciones.
+ *
+ * Las transiciones se agrupan en bloques de SPECIES.length() (con padding al final).
+ * Para cada bloque se guarda solo la fila de pre de las plazas que tienen algún arco
+ * hacia ese bloque. Evaluar un bloque es: restar M(p) + 1 (broadcast) a pre[p][t..t+L],
+ * acumular con AND y al final pasar los bits de signo a la máscara con toLong().
+ * No hay reducción por transición, y en redes ralas se saltean los bloques sin arcos.
+ *
+ * Solo se instancia desde EnablementEvaluator.forNet si el módulo incubator está cargado.
+ */
+final class VectorEnablementEvaluator implements EnablementEvaluator {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int transitions;
+    private final int blocks;
+
+    // filas del bloque b: rowStart[b] .. rowStart[b + 1] - 1
+    private final int[] rowStart;
+    private final int[] rowPlace;  // plaza de cada fila
+    private final int[] rows;      // rows[r * L + i] = pre[rowPlace[r]][b * L + i] (0 en el padding)
+
+    // todas las transiciones reales en 1: limpia los bits del padding
+    private final long[] all;
+
+    VectorEnablementEvaluator(PetriNet net) {
+        int lanes = SPECIES.length(); // potencia de 2 <= 16 para int: los bloques no cruzan palabras
+        this.transitions = net.transitions();
+        this.blocks = (transitions + lanes - 1) / lanes;
+
+        int[] places = EnablementEvaluator.inputPlaces(net);
+        int[] start = new int[blocks + 1];
+        int[] place = new int[places.length * blocks];
+        int[] data = new int[places.length * blocks * lanes];
+
+        int r = 0;
+        for (int b = 0; b < blocks; b++) {
+            start[b] = r;
+            for (int p : places) {
+                int m = 0;
+                for (int i = 0; i < lanes && b * lanes + i < transitions; i++) {
+                    int w = net.pre(p, b * lanes + i);
+                    data[r * lanes + i] = w;
+                    m = Math.max(m, w);
+                }
+                if (m > 0) { // la plaza toca este bloque: la fila queda
+                    place[r] = p;
+                    r++;
+                } else {
+                    Arrays.fill(data, r * lanes, (r + 1) * lanes, 0);
+                }
+            }
+        }
+        start[blocks] = r;
+
+        this.rowStart = start;
+        this.rowPlace = Arrays.copyOf(place, r);
+        this.rows = Arrays.copyOf(data, r * lanes);
+
+        this.all = new long[EnablementEvaluator.words(transitions)];
+        for (int t = 0; t < transitions; t++) all[t >>> 6] |= 1L << t;
+    }
+
+    @Override
+    public void enabledMask(Marking m, long[] mask) {
+        int lanes = SPECIES.length();
+        Arrays.fill(mask, 0L);
+        for (int b = 0; b < blocks; b++) {
+            // pre[p][t] <= M(p)  <=>  pre[p][t] - (M(p) + 1) < 0: acumulamos con AND y al final
+            // el bit de signo de cada carril dice si se cumplió para TODAS las plazas del bloque.
+            // (sin ramas en el loop: así el acumulador queda en un registro vectorial)
+            IntVector acc = IntVector.broadcast(SPECIES, -1);
+            for (int r = rowStart[b]; r < rowStart[b + 1]; r++) {
+                acc = acc.and(IntVector.fromArray(SPECIES, rows, r * lanes).sub(m.get(rowPlace[r]) + 1));
+            }
+            VectorMask<Integer> ok = acc.compare(VectorOperators.LT, 0);
+            int c = b * lanes;
+            mask[c >>> 6] |= ok.toLong() << (c & 63);
+        }
+        for (int w = 0; w < mask.length; w++) mask[w] &= all[w];
+    }
+
+    @Override
+    public int transitions() {
+        return transitions;
+    }
+
+    @Override
+    public int cost() {
+        // ~1 por fila (load + sub + and) más el armado de la máscara de cada bloque
+        return rowPlace.length + 4 * blocks;
+    }
+}
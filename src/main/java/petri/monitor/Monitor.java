@@ -1,5 +1,6 @@
 package petri.monitor;
 
+import petri.core.EnablementEvaluator;
 import petri.runtime.NetState;
 
 import java.util.ArrayList;
@@ -198,16 +199,33 @@ public class Monitor implements MonitorInterface {
         int n = waiting.length;
         List<Integer> ready = new ArrayList<>();
 
+        // candidatos: transiciones con hilos esperando (salvo T0 si estamos drenando)
+        int candidates = 0;
         for (int t = 0; t < n; t++) {
-            if (waiting[t] > 0) {
+            if (waiting[t] > 0 && !(t == feedTransition && stopFeeding)) candidates++;
+        }
+        if (candidates == 0) return ready;
+
+        if (state.prefersBulk(candidates)) {
+            // muchos esperando: habilitación por tokens de todas las transiciones en una sola pasada
+            long[] enabled = state.enabledByTokensMask();
+            for (int t = 0; t < n; t++) {
+                if (waiting[t] == 0 || !EnablementEvaluator.isSet(enabled, t)) continue;
+                if (t == feedTransition && stopFeeding) continue;
+
+                // ya está habilitada por tokens: solo arrancamos su reloj si es temporizada
+                state.timeLeftIfEnabled(t);
+                ready.add(t);
+            }
+        } else {
+            // pocos esperando: más barato preguntar solo por ellos
+            for (int t = 0; t < n; t++) {
+                if (waiting[t] == 0) continue;
 
                 // Si estamos drenando, no tiene sentido despertar hilos de T0
                 if (t == feedTransition && stopFeeding) continue;
 
-                long left = state.timeLeft(t);
-                if (left != -1) {
-                    ready.add(t);
-                }
+                if (state.timeLeft(t) != -1) ready.add(t);
             }
         }
         return ready;
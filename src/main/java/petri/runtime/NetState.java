@@ -1,5 +1,7 @@
 package petri.runtime;
 
+import petri.core.EnablementEvaluator;
+import petri.core.FiringKernel;
 import petri.core.Marking;
 import petri.core.PetriNet;
 
@@ -8,13 +10,20 @@ import java.util.Arrays;
 /**
  * Estado "en ejecución" de una red de Petri:
  * - referencia a la estructura (PetriNet)
+ * - lógica de disparo por tokens (FiringKernel: la propia PetriNet o una CompiledNet)
  * - marcado actual (Marking)
  * - control de temporización por transición (enabledSince)
  *
  * Nota: esta clase NO sincroniza (eso lo hace el monitor).
  */
 public class NetState {
+
     private final PetriNet net; // estructura fija de la red (pre/post/delays)
+    private final FiringKernel kernel; // cómo se chequea/dispara por tokens
+    private final EnablementEvaluator evaluator; // habilitación de todas las transiciones de una vez
+
+    // costo estimado de chequear UNA transición con el kernel (mismas unidades que evaluator.cost())
+    private final int kernelCost;
 
     // estado dinámico: el marcado actual (tokens por plaza)
     private Marking marking;
@@ -23,13 +32,49 @@ public class NetState {
     // si no está habilitada por tokens -> -1
     private final long[] enabledSince;
 
+    // buffer reutilizado por enabledByTokensMask (evita reservar memoria en cada disparo)
+    private final long[] mask;
+
     public NetState(PetriNet net, Marking initial) {
+        this(net, net, initial); // por defecto se interpretan las matrices de la red
+    }
+
+    public NetState(PetriNet net, FiringKernel kernel, Marking initial) {
+        this(net, kernel, EnablementEvaluator.forNet(net), initial);
+    }
+
+    /**
+     * Variante para muchas instancias de la misma red: kernel y evaluator son inmutables
+     * y se pueden compartir, así cada NetState solo guarda su marcado y sus relojes.
+     */
+    public NetState(PetriNet net, FiringKernel kernel, EnablementEvaluator evaluator, Marking initial) {
         this.net = net;
+        this.kernel = kernel;
+        this.evaluator = evaluator;
         this.marking = initial;
 
         // un "reloj" por transición
         this.enabledSince = new long[net.transitions()];
         Arrays.fill(enabledSince, -1L); // -1 => "no está corriendo el reloj"
+
+        this.mask = new long[EnablementEvaluator.words(net.transitions())];
+
+        // ~4 por arco de entrada más la llamada (calibrado con petri.app.EnablementBench)
+        int inArcs = 0;
+        for (int p = 0; p < net.places(); p++) {
+            for (int t = 0; t < net.transitions(); t++) {
+                if (net.pre(p, t) > 0) inArcs++;
+            }
+        }
+        this.kernelCost = 4 * (1 + (inArcs + net.transitions() - 1) / net.transitions());
+    }
+
+    /**
+     * true si para mirar `candidates` transiciones conviene enabledByTokensMask (todas de una vez)
+     * en vez de timeLeft de a una. En redes chicas o ralas, con pocos candidatos, gana el kernel.
+     */
+    public boolean prefersBulk(int candidates) {
+        return (long) candidates * kernelCost >= evaluator.cost();
     }
 
     public Marking getMarking() {
@@ -46,11 +91,19 @@ public class NetState {
      */
     public long timeLeft(int t) {
         // 1) Si no está habilitada por tokens, no hay temporizador activo
-        if (!net.isEnabledByTokens(marking, t)) {
+        if (!kernel.isEnabledByTokens(marking, t)) {
             enabledSince[t] = -1L; // resetea el reloj porque dejó de estar habilitada
             return -1;
         }
+        return timeLeftIfEnabled(t);
+    }
 
+    /**
+     * Igual que timeLeft pero para una transición que el llamador YA sabe habilitada
+     * por tokens (p.ej. por enabledByTokensMask): se saltea el chequeo de tokens.
+     * Devuelve 0 o los milisegundos que faltan.
+     */
+    public long timeLeftIfEnabled(int t) {
         // 2) Si no es temporizada, puede disparar ya
         long delay = net.delayMs(t);
         if (delay == 0) return 0;
@@ -70,6 +123,21 @@ public class NetState {
         return Math.max(left, 0);
     }
 
+    /**
+     * Máscara de transiciones habilitadas por tokens en el marcado actual
+     * (bit t en 1 => Tt habilitada; ver EnablementEvaluator.isSet).
+     *
+     * Igual que timeLeft, resetea el reloj de las que no están habilitadas.
+     * Ojo: devuelve un buffer interno que se pisa en la próxima llamada.
+     */
+    public long[] enabledByTokensMask() {
+        evaluator.enabledMask(marking, mask);
+        for (int t = 0; t < enabledSince.length; t++) {
+            if (!EnablementEvaluator.isSet(mask, t)) enabledSince[t] = -1L;
+        }
+        return mask;
+    }
+
     /**
      * Dispara la transición t asumiendo que ya puede (timeLeft(t) == 0).
      * Actualiza el marcado y resetea el reloj de esa transición.
@@ -81,7 +149,7 @@ public class NetState {
         }
 
         // actualiza el marcado aplicando la ecuación de estado
-        marking = net.fire(marking, t);
+        marking = kernel.fire(marking, t);
 
         // resetea el reloj de esa transición (el próximo "habilitada" arranca de nuevo)
         enabledSince[t] = -1L;
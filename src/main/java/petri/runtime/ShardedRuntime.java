@@ -0,0 +1,461 @@
+package petri.runtime;
+
+import petri.core.CompiledNet;
+import petri.core.EnablementEvaluator;
+import petri.core.FiringKernel;
+import petri.core.Marking;
+import petri.core.PetriNet;
+import petri.monitor.Policy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runtime para muchas instancias independientes de la MISMA red (p.ej. una por sesión).
+ *
+ * En vez de un Monitor + 5 Workers + un lock por instancia:
+ * - la estructura (PetriNet, CompiledNet, EnablementEvaluator) es inmutable y se comparte
+ * - cada instancia es solo un NetState más sus contadores
+ * - los disparos corren en unos pocos shards (un hilo + una cola cada uno) con work-stealing
+ * - las esperas por tiempo no bloquean hilos: un único hilo timer devuelve la instancia a su shard
+ *
+ * Afinidad: cada instancia tiene un shard "casa" (al principio id % shards). Tanto la
+ * continuación después de un lote como el re-encolado del timer vuelven a la cola de su
+ * casa, así que corre siempre en el mismo hilo. Un shard sin trabajo roba del final de
+ * la cola de otro; la instancia robada pasa a tener casa en el ladrón.
+ *
+ * Cada instancia está a lo sumo en un lugar a la vez (una cola o el timer), así que su
+ * NetState nunca se toca desde dos hilos al mismo tiempo (no hace falta lock).
+ *
+ * Semántica "feed & drain" igual que el Monitor: al llegar a limit disparos de la
+ * transición de entrada se deja de alimentar, y al llegar a limit de la de salida
+ * la instancia termina. También termina si no queda ninguna transición habilitada.
+ */
+public class ShardedRuntime {
+
+    // disparos máximos por turno antes de ceder el shard a otra instancia
+    private static final int BATCH = 32;
+
+    // un shard ocioso se despierta cada tanto a buscar trabajo para robar (por si nadie lo avisó)
+    private static final long IDLE_PARK_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    // solo se le roba a un shard con al menos esta cantidad de instancias esperando en su cola:
+    // con menos, su dueño las atiende enseguida y robar solo rompe la afinidad
+    private static final int STEAL_MIN_BACKLOG = 4;
+
+    private final PetriNet net;
+    private final FiringKernel kernel;
+    private final EnablementEvaluator evaluator;
+    private final Policy policy;
+
+    private final Shard[] shards;
+    private final ScheduledExecutorService timer;
+    private volatile boolean terminated = false; // shutdown: los shards terminan al vaciar sus colas
+
+    // instancias alojadas (corriendo o terminadas sin liberar), por id
+    private final ConcurrentHashMap<Integer, Instance> instances = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicBoolean stop = new AtomicBoolean(false);
+
+    // instancias esperando al timer (en ninguna cola); quien las saca del set las despierta
+    private final Set<Instance> parked = ConcurrentHashMap.newKeySet();
+
+    // métricas agregadas de todas las instancias
+    private final LongAdder[] firedCount;
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+
+    // límites “feed & drain” (mismos roles que en Monitor)
+    private final int feedTransition;
+    private final int drainTransition;
+    private final int limit;
+
+    public ShardedRuntime(PetriNet net, Policy policy, int feedTransition, int drainTransition,
+                          int limit, int parallelism) {
+        if (feedTransition < 0 || feedTransition >= net.transitions()
+                || drainTransition < 0 || drainTransition >= net.transitions()) {
+            throw new IllegalArgumentException("Transiciones de feed/drain fuera de rango");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism debe ser >= 1");
+        }
+        this.net = net;
+        this.kernel = CompiledNet.compile(net);
+        this.evaluator = EnablementEvaluator.forNet(net);
+        this.policy = policy;
+
+        this.feedTransition = feedTransition;
+        this.drainTransition = drainTransition;
+        this.limit = limit;
+
+        this.timer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("petri-timer").daemon().factory());
+
+        this.firedCount = new LongAdder[net.transitions()];
+        for (int t = 0; t < firedCount.length; t++) firedCount[t] = new LongAdder();
+
+        // los hilos arrancan al final, con todo lo demás ya inicializado
+        this.shards = new Shard[parallelism];
+        for (int i = 0; i < parallelism; i++) shards[i] = new Shard(i);
+        for (Shard sh : shards) sh.start();
+    }
+
+    /**
+     * Crea una instancia nueva con ese marcado inicial y la pone a correr.
+     * Devuelve su id. Si el runtime se cierra en el medio, la instancia
+     * queda terminada (sin disparos) para que awaitCompletion no la espere.
+     * Una vez terminada sigue alojada hasta removeInstance/removeFinished.
+     */
+    public int addInstance(Marking initial) {
+        if (stop.get()) {
+            throw new IllegalStateException("El runtime está detenido");
+        }
+        Instance inst = new Instance(nextId.getAndIncrement(), new NetState(net, kernel, evaluator, initial));
+        instances.put(inst.id, inst);
+        inst.home = shards[inst.id % shards.length];
+        inst.home.submit(inst); // si ya hubo shutdown, submit la da por terminada sin correr
+        return inst.id;
+    }
+
+    /**
+     * Pide detener todas las instancias. Las que están corriendo terminan en su próximo paso;
+     * las que esperan al timer se terminan ya, sin esperar el delay.
+     */
+    public void requestStop() {
+        stop.set(true);
+        for (Instance inst : parked) {
+            if (parked.remove(inst)) inst.finish();
+        }
+    }
+
+    public boolean isStopRequested() {
+        return stop.get();
+    }
+
+    /**
+     * Espera a que terminen todas las instancias alojadas ahora (las ya liberadas no cuentan).
+     * Devuelve false si se cumplió el timeout antes.
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Instance inst : instances.values()) {
+            if (!inst.done.isDone()) pending.add(inst.done);
+        }
+        CompletableFuture<?>[] all = pending.toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(all).get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló una instancia", e.getCause());
+        }
+    }
+
+    /**
+     * Frena y libera los hilos de los shards y del timer.
+     * requestStop termina las instancias estacionadas en el timer, así que descartar
+     * sus tareas con shutdownNow no deja ninguna instancia sin completar; las que están
+     * en colas las terminan los shards antes de salir.
+     */
+    public void shutdown() {
+        requestStop();
+        timer.shutdownNow();
+        terminated = true;
+        for (Shard sh : shards) LockSupport.unpark(sh.thread);
+    }
+
+    /** Instancias alojadas (corriendo o terminadas sin liberar). */
+    public int instanceCount() {
+        return instances.size();
+    }
+
+    /** Instancias terminadas desde que arrancó el runtime (incluye las ya liberadas). */
+    public long finishedCount() {
+        return finished.sum();
+    }
+
+    /** Cuántas veces un shard ocioso le robó una instancia a otro (cada robo le cambia la casa). */
+    public long stealCount() {
+        return steals.sum();
+    }
+
+    /** Turnos corridos en total (stealCount / turnCount = fracción que cambió de hilo). */
+    public long turnCount() {
+        return turns.sum();
+    }
+
+    /** Disparos por transición sumando todas las instancias. */
+    public long[] getFiredCountSnapshot() {
+        long[] snap = new long[firedCount.length];
+        for (int t = 0; t < snap.length; t++) snap[t] = firedCount[t].sum();
+        return snap;
+    }
+
+    /**
+     * Marcado final de una instancia. Solo tiene sentido una vez terminada
+     * (mientras corre, su NetState es de uso exclusivo de su tarea).
+     */
+    public Marking getMarking(int id) {
+        return finishedInstance(id).state.getMarking();
+    }
+
+    /**
+     * Libera una instancia terminada (su NetState, buffers y future) y devuelve su marcado final.
+     * Sus disparos siguen contando en las métricas agregadas.
+     */
+    public Marking removeInstance(int id) {
+        Instance inst = finishedInstance(id);
+        instances.remove(id);
+        return inst.state.getMarking();
+    }
+
+    /** Libera todas las instancias ya terminadas. Devuelve cuántas liberó. */
+    public int removeFinished() {
+        int removed = 0;
+        for (Instance inst : instances.values()) {
+            if (inst.done.isDone() && instances.remove(inst.id, inst)) removed++;
+        }
+        return removed;
+    }
+
+    private Instance finishedInstance(int id) {
+        Instance inst = instances.get(id);
+        if (inst == null) {
+            throw new IllegalArgumentException("No hay instancia " + id + " (nunca existió o ya se liberó)");
+        }
+        if (!inst.done.isDone()) {
+            throw new IllegalStateException("La instancia " + id + " todavía está corriendo");
+        }
+        return inst;
+    }
+
+    /**
+     * Una instancia: su NetState y su estado de fases. Solo lo toca el shard que la está corriendo.
+     */
+    private final class Instance {
+        final int id;
+        final NetState state;
+        final int[] fired;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        final AtomicBoolean ended = new AtomicBoolean(false); // quién gana terminar la instancia
+        boolean stopFeeding = false; // cuando true, la transición de entrada queda prohibida
+        final boolean bulk;          // mirar todas las transiciones con la máscara en bloque
+        volatile Shard home;         // shard donde vuelve (lo cambia un robo); lo lee el timer
+
+        // candidatas listas para disparar; se reutiliza en cada iteración (la usa un solo hilo por vez)
+        private final List<Integer> ready;
+
+        Instance(int id, NetState state) {
+            this.id = id;
+            this.state = state;
+            this.fired = new int[net.transitions()];
+            this.bulk = state.prefersBulk(net.transitions());
+            this.ready = new ArrayList<>(net.transitions());
+        }
+
+        /**
+         * Un turno: dispara hasta BATCH transiciones. Devuelve true si quedó con trabajo
+         * y hay que volver a encolarla ya (false si terminó o quedó esperando al timer).
+         */
+        boolean step() {
+            try {
+                for (int i = 0; i < BATCH; i++) {
+                    if (stop.get()) {
+                        finish();
+                        return false;
+                    }
+
+                    ready.clear(); // Integer.valueOf cachea -128..127: con T < 128 no se reserva nada
+                    long minLeft = Long.MAX_VALUE; // menor espera entre las temporizadas habilitadas
+
+                    // se miran todas las transiciones: máscara en bloque si conviene, si no el kernel de a una
+                    long[] enabled = bulk ? state.enabledByTokensMask() : null;
+                    for (int t = 0; t < fired.length; t++) {
+                        if (t == feedTransition && stopFeeding) continue;
+
+                        long left;
+                        if (bulk) {
+                            if (!EnablementEvaluator.isSet(enabled, t)) continue;
+                            left = state.timeLeftIfEnabled(t); // la máscara ya confirmó los tokens
+                        } else {
+                            left = state.timeLeft(t);
+                        }
+                        if (left == 0) ready.add(t);
+                        else if (left > 0) minLeft = Math.min(minLeft, left);
+                    }
+
+                    if (ready.isEmpty()) {
+                        if (minLeft == Long.MAX_VALUE) {
+                            finish(); // nada habilitado: la instancia no puede avanzar más
+                        } else {
+                            park(minLeft);
+                        }
+                        return false;
+                    }
+
+                    int t = policy.choose(ready);
+                    state.fire(t);
+                    fired[t]++;
+                    firedCount[t].increment();
+
+                    if (t == feedTransition && fired[feedTransition] >= limit) {
+                        stopFeeding = true;
+                    }
+                    if (t == drainTransition && fired[drainTransition] >= limit) {
+                        finish();
+                        return false;
+                    }
+                }
+                return true;
+            } catch (RejectedExecutionException e) {
+                parked.remove(this);
+                finish(); // shutdown mientras corría: el timer ya no acepta tareas
+            } catch (RuntimeException e) {
+                parked.remove(this);
+                if (ended.compareAndSet(false, true)) {
+                    finished.increment();
+                    done.completeExceptionally(e);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Nadie bloqueado: el timer la vuelve a encolar cuando se cumpla el delay.
+         * Si requestStop llegó mientras tanto, la terminamos acá (él puede no habernos visto en parked).
+         */
+        private void park(long delayMs) {
+            parked.add(this);
+            if (stop.get()) {
+                if (parked.remove(this)) finish();
+                return;
+            }
+            timer.schedule(this::requeue, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        // la llama el timer: solo sigue si nadie (requestStop) la sacó antes de parked.
+        // Vuelve a la cola de su casa, no a cualquier hilo.
+        private void requeue() {
+            if (parked.remove(this)) home.submit(this);
+        }
+
+        // idempotente: cuenta la instancia una sola vez aunque varios caminos la terminen.
+        // Se cuenta ANTES de completar done, así quien espera en awaitCompletion ya ve el contador.
+        private void finish() {
+            if (ended.compareAndSet(false, true)) {
+                finished.increment();
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Un shard: un hilo con su cola de instancias listas para correr.
+     * El dueño saca del principio; los ladrones, del final (así se llevan lo que más esperó
+     * a quedar en este hilo y le roban menos localidad al dueño).
+     */
+    private final class Shard implements Runnable {
+        final int index;
+        final ConcurrentLinkedDeque<Instance> queue = new ConcurrentLinkedDeque<>();
+        final AtomicInteger size = new AtomicInteger(); // largo de queue (size() del deque es O(n))
+        final AtomicBoolean idle = new AtomicBoolean(false); // true mientras está por dormir o dormido
+        final Thread thread;
+
+        Shard(int index) {
+            this.index = index;
+            this.thread = Thread.ofPlatform().name("petri-shard-" + index).daemon().unstarted(this);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        /**
+         * Encola una instancia en este shard (desde addInstance o desde el timer) y lo despierta.
+         * Si además ya tenía STEAL_MIN_BACKLOG esperando, despierta a uno ocioso para que robe;
+         * si no, la instancia espera a su casa aunque esté ocupada (afinidad).
+         */
+        void submit(Instance inst) {
+            boolean backlog = size.getAndIncrement() >= STEAL_MIN_BACKLOG;
+            queue.offerLast(inst);
+            if (terminated) {
+                // el hilo puede haber salido ya: si nadie la tomó, la terminamos acá
+                if (queue.remove(inst)) {
+                    size.decrementAndGet();
+                    inst.finish();
+                }
+                return;
+            }
+            if (idle.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+                return;
+            }
+            if (!backlog) return;
+            for (Shard other : shards) {
+                if (other != this && other.idle.compareAndSet(true, false)) {
+                    LockSupport.unpark(other.thread);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Instance inst = queue.pollFirst();
+                if (inst != null) size.decrementAndGet();
+                else inst = steal();
+                if (inst != null) {
+                    inst.home = this;
+                    turns.increment();
+                    if (inst.step()) { // sigue en este mismo hilo
+                        size.incrementAndGet();
+                        queue.offerLast(inst);
+                    }
+                    continue;
+                }
+                if (terminated) return; // colas vacías y shutdown pedido
+
+                // nada para hacer: marcamos idle y re-chequeamos antes de dormir (evita perder un aviso)
+                idle.set(true);
+                if (!queue.isEmpty() || terminated) {
+                    idle.set(false);
+                    continue;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NS);
+                idle.set(false);
+            }
+        }
+
+        // roba del final de la cola de otro shard con backlog (recorriendo desde el siguiente)
+        private Instance steal() {
+            for (int k = 1; k < shards.length; k++) {
+                Shard victim = shards[(index + k) % shards.length];
+                if (victim.size.get() < STEAL_MIN_BACKLOG) continue;
+                Instance inst = victim.queue.pollLast();
+                if (inst != null) {
+                    victim.size.decrementAndGet();
+                    steals.increment();
+                    return inst;
+                }
+            }
+            return null;
+        }
+    }
+}